@@ -146,7 +146,7 @@ public class Main {
         Files.writeString(astOut, tree.toStringTree(parser));
         System.out.println("AST written to " + astOut.toAbsolutePath());
 
-        RiscVCompiler compiler = new RiscVCompiler();
+        RiscVCompiler compiler = new RiscVCompiler(Integer.getInteger("fuel", RiscVCompiler.DEFAULT_FUEL));
         Path compilerOut = Paths.get("program.s");
         Files.write(compilerOut, compiler.compile(tree));
         System.out.println("RISC-V assembly written to " + compilerOut.toAbsolutePath());
@@ -0,0 +1,231 @@
+package com.lisi4ka;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Executes a MicroJathon program at compile time with the same semantics as the code
+ * produced by {@link RiscVCompiler}: 32-bit integers and read-only string literals.
+ * <p>
+ * Top-level statements are run one by one until the fuel budget is exhausted or a
+ * construct is met that cannot be folded (floats, round(), division by zero, mixed
+ * string/integer use, more than {@link #MAX_FOLDED_OUTPUT} characters of output).
+ * That statement is rolled back, and it and everything after it form the residual
+ * program that still has to be compiled.
+ */
+public class MicroJathonPartialEvaluator extends MicroJathonBaseVisitor<Object> {
+    public static final int MAX_FOLDED_OUTPUT = 4096;
+
+    private final Set<String> stringVars;
+    private final Map<String, Object> memory = new LinkedHashMap<>();
+    private final StringBuilder output = new StringBuilder();
+    private int fuel;
+
+    public MicroJathonPartialEvaluator(Set<String> stringVars, int fuel) {
+        this.stringVars = stringVars;
+        this.fuel = fuel;
+    }
+
+    /**
+     * Returns the index of the first top-level statement that was not evaluated.
+     */
+    public int run(MicroJathonParser.ProgramContext ctx) {
+        List<MicroJathonParser.StatementContext> statements = ctx.statement();
+        for (int i = 0; i < statements.size(); i++) {
+            Map<String, Object> memorySnapshot = new LinkedHashMap<>(memory);
+            int outputSnapshot = output.length();
+            try {
+                visit(statements.get(i));
+            } catch (StopEvaluation e) {
+                memory.clear();
+                memory.putAll(memorySnapshot);
+                output.setLength(outputSnapshot);
+                return i;
+            }
+        }
+        return statements.size();
+    }
+
+    /**
+     * Variable values after the evaluated prefix: {@link Integer} or {@link String}.
+     */
+    public Map<String, Object> getMemory() {
+        return memory;
+    }
+
+    public String getOutput() {
+        return output.toString();
+    }
+
+    @Override
+    public Object visitStatement(MicroJathonParser.StatementContext ctx) {
+        consumeFuel();
+        if (ctx.variable() != null && ctx.expr() instanceof MicroJathonParser.StringExprContext) {
+            memory.put(ctx.variable().getText(), visit(ctx.expr()));
+        } else if (ctx.variable() != null && ctx.expr() != null) {
+            memory.put(ctx.variable().getText(), toInt(visit(ctx.expr())));
+        } else if (ctx.getChild(0).getText().equals("print")) {
+            visitPrint(ctx);
+        } else if (ctx.getChild(0).getText().equals("if")) {
+            if (toInt(visit(ctx.expr())) != 0) {
+                visit(ctx.block(0));
+            } else if (ctx.block().size() > 1) {
+                visit(ctx.block(1));
+            }
+        } else if (ctx.getChild(0).getText().equals("while")) {
+            while (toInt(visit(ctx.expr())) != 0) {
+                visit(ctx.block(0));
+                consumeFuel();
+            }
+        } else {
+            visit(ctx.block(0));
+        }
+        return null;
+    }
+
+    private void visitPrint(MicroJathonParser.StatementContext ctx) {
+        MicroJathonParser.ExprContext expr = ctx.expr();
+        String text;
+        if (expr instanceof MicroJathonParser.StringExprContext) {
+            text = (String) visit(expr);
+        } else if (expr instanceof MicroJathonParser.VarExprContext && stringVars.contains(expr.getText())) {
+            Object value = memory.get(expr.getText());
+            if (value != null && !(value instanceof String)) {
+                throw new StopEvaluation();
+            }
+            text = value == null ? "" : (String) value;
+        } else {
+            int value = toInt(visit(expr));
+            // print_int never terminates on the most negative value
+            if (value == Integer.MIN_VALUE) {
+                throw new StopEvaluation();
+            }
+            text = String.valueOf(value);
+        }
+        if (output.length() + text.length() + 1 > MAX_FOLDED_OUTPUT) {
+            throw new StopEvaluation();
+        }
+        output.append(text).append('\n');
+    }
+
+    @Override
+    public Object visitBlock(MicroJathonParser.BlockContext ctx) {
+        for (MicroJathonParser.StatementContext stmt : ctx.statement()) {
+            visit(stmt);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitVarExpr(MicroJathonParser.VarExprContext ctx) {
+        String v = ctx.getText();
+        if (stringVars.contains(v)) {
+            throw new StopEvaluation();
+        }
+        return memory.getOrDefault(v, 0);
+    }
+
+    @Override
+    public Object visitIntExpr(MicroJathonParser.IntExprContext ctx) {
+        try {
+            return Integer.parseInt(ctx.getText());
+        } catch (NumberFormatException e) {
+            throw new StopEvaluation();
+        }
+    }
+
+    @Override
+    public Object visitFloatExpr(MicroJathonParser.FloatExprContext ctx) {
+        throw new StopEvaluation();
+    }
+
+    @Override
+    public Object visitStringExpr(MicroJathonParser.StringExprContext ctx) {
+        return ctx.STRING().getText().substring(1, ctx.STRING().getText().length() - 1);
+    }
+
+    @Override
+    public Object visitParenExpr(MicroJathonParser.ParenExprContext ctx) {
+        return visit(ctx.expr());
+    }
+
+    @Override
+    public Object visitRoundExpr(MicroJathonParser.RoundExprContext ctx) {
+        throw new StopEvaluation();
+    }
+
+    @Override
+    public Object visitAddSubExpr(MicroJathonParser.AddSubExprContext ctx) {
+        int l = toInt(visit(ctx.expr(0)));
+        int r = toInt(visit(ctx.expr(1)));
+        return ctx.op.getText().equals("+") ? l + r : l - r;
+    }
+
+    @Override
+    public Object visitMulDivExpr(MicroJathonParser.MulDivExprContext ctx) {
+        int l = toInt(visit(ctx.expr(0)));
+        int r = toInt(visit(ctx.expr(1)));
+        if (ctx.op.getText().equals("*")) {
+            return l * r;
+        }
+        if (r == 0) {
+            throw new StopEvaluation();
+        }
+        return l / r;
+    }
+
+    @Override
+    public Object visitCompareExpr(MicroJathonParser.CompareExprContext ctx) {
+        int l = toInt(visit(ctx.expr(0)));
+        int r = toInt(visit(ctx.expr(1)));
+        return switch (ctx.op.getText()) {
+            case "==" -> l == r ? 1 : 0;
+            case "!=" -> l != r ? 1 : 0;
+            case "<" -> l < r ? 1 : 0;
+            case ">" -> l > r ? 1 : 0;
+            case "<=" -> l <= r ? 1 : 0;
+            case ">=" -> l >= r ? 1 : 0;
+            default -> throw new RuntimeException("Invalid comparison operator");
+        };
+    }
+
+    @Override
+    public Object visitAndExpr(MicroJathonParser.AndExprContext ctx) {
+        int l = toInt(visit(ctx.expr(0)));
+        int r = toInt(visit(ctx.expr(1)));
+        return (l != 0 && r != 0) ? 1 : 0;
+    }
+
+    @Override
+    public Object visitOrExpr(MicroJathonParser.OrExprContext ctx) {
+        int l = toInt(visit(ctx.expr(0)));
+        int r = toInt(visit(ctx.expr(1)));
+        return (l != 0 || r != 0) ? 1 : 0;
+    }
+
+    @Override
+    public Object visitNotExpr(MicroJathonParser.NotExprContext ctx) {
+        return toInt(visit(ctx.expr())) == 0 ? 1 : 0;
+    }
+
+    private void consumeFuel() {
+        if (fuel-- <= 0) {
+            throw new StopEvaluation();
+        }
+    }
+
+    private int toInt(Object obj) {
+        if (obj instanceof Integer) return (Integer) obj;
+        throw new StopEvaluation();
+    }
+
+    private static class StopEvaluation extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        StopEvaluation() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -6,18 +6,57 @@ import java.util.*;
 
 
 public class RiscVCompiler {
+    public static final int DEFAULT_FUEL = 100_000;
+
     private final Set<String> vars = new LinkedHashSet<>();
     private final Map<String, String> strLiterals = new LinkedHashMap<>();
+    private final Map<MicroJathonParser.StringExprContext, String> literalLabels = new HashMap<>();
     private final Set<String> stringVars = new HashSet<>();
     private final List<String> lines = new ArrayList<>();
+    private final int fuel;
+    private String foldedOutputLabel = "folded_output";
     private int literalCount = 0;
     private int lblCount = 0;
 
+    public RiscVCompiler() {
+        this(DEFAULT_FUEL);
+    }
+
+    /**
+     * @param fuel step budget for compile-time evaluation; 0 disables it
+     */
+    public RiscVCompiler(int fuel) {
+        this.fuel = fuel;
+    }
 
     public List<String> compile(ParseTree tree) {
         new VarCollector().visit(tree);
         lines.add("main:");
-        new CodeGenVisitor().visit(tree);
+        Map<String, Object> initialValues = Map.of();
+        String foldedOutput = "";
+        if (fuel > 0 && tree instanceof MicroJathonParser.ProgramContext program) {
+            while (vars.contains(foldedOutputLabel)) {
+                foldedOutputLabel += "_";
+            }
+            MicroJathonPartialEvaluator evaluator = new MicroJathonPartialEvaluator(stringVars, fuel);
+            int residualStart = evaluator.run(program);
+            List<MicroJathonParser.StatementContext> statements = program.statement();
+            initialValues = evaluator.getMemory();
+            foldedOutput = evaluator.getOutput();
+            emitPrintFoldedOutput(foldedOutput);
+            if (residualStart == statements.size()) {
+                lines.add("ebreak");
+                emitFoldedOutputData(foldedOutput);
+                return lines;
+            }
+            emitStringVarsInit(initialValues);
+            CodeGenVisitor codeGen = new CodeGenVisitor();
+            for (MicroJathonParser.StatementContext stmt : statements.subList(residualStart, statements.size())) {
+                codeGen.visit(stmt);
+            }
+        } else {
+            new CodeGenVisitor().visit(tree);
+        }
         lines.add("ebreak");
         lines.add("");
         emitPrintIntSubroutine();
@@ -34,13 +73,15 @@ public class RiscVCompiler {
         }
         for (String var : vars) {
             lines.add(var + ":");
-            lines.add("data 0 * 1");
+            Object value = initialValues.get(var);
+            lines.add("data " + (value instanceof Integer ? value : 0) + " * 1");
         }
         if (!vars.isEmpty()) {
             lines.add("");
         }
         lines.add("buf:");
         lines.add("data 0 * 12");
+        emitFoldedOutputData(foldedOutput);
         return lines;
     }
 
@@ -56,6 +97,7 @@ public class RiscVCompiler {
                     stringVars.add(var);
                     String lbl = "str" + (literalCount++);
                     strLiterals.put(lbl, content);
+                    literalLabels.put((MicroJathonParser.StringExprContext) ctx.expr(), lbl);
                 }
             }
             return super.visitChildren(ctx);
@@ -75,7 +117,7 @@ public class RiscVCompiler {
         public Void visitStatement(MicroJathonParser.StatementContext ctx) {
             if (ctx.variable() != null && ctx.expr() instanceof MicroJathonParser.StringExprContext) {
                 String var = ctx.variable().getText();
-                String lbl = getLiteralLabelFor(var);
+                String lbl = literalLabels.get((MicroJathonParser.StringExprContext) ctx.expr());
                 lines.add("li x7, " + lbl);
                 lines.add("li x6, " + var);
                 lines.add("sw x6, 0, x7");
@@ -268,19 +310,57 @@ public class RiscVCompiler {
         }
     }
 
-    private String getLiteralLabelFor(String var) {
-        for (String lbl : strLiterals.keySet()) {
-            if (stringVars.contains(var)) {
-                return lbl;
+    private String getLiteralLabelFor(String content) {
+        for (Map.Entry<String, String> entry : strLiterals.entrySet()) {
+            if (entry.getValue().equals(content)) {
+                return entry.getKey();
             }
         }
-        throw new RuntimeException("No literal for var " + var);
+        throw new RuntimeException("No literal for string " + content);
     }
 
     private String newLabel() {
         return "L" + (lblCount++);
     }
 
+    private void emitPrintFoldedOutput(String output) {
+        if (output.isEmpty()) {
+            return;
+        }
+        String loop = newLabel();
+        String end = newLabel();
+        lines.add("li x10, " + foldedOutputLabel);
+        lines.add(loop + ":");
+        lines.add("lw x11, x10, 0");
+        lines.add("beq x11, x0, " + end);
+        lines.add("ewrite x11");
+        lines.add("addi x10, x10, 1");
+        lines.add("jal x0, " + loop);
+        lines.add(end + ":");
+    }
+
+    private void emitFoldedOutputData(String output) {
+        if (output.isEmpty()) {
+            return;
+        }
+        lines.add("");
+        lines.add(foldedOutputLabel + ":");
+        for (char c : output.toCharArray()) {
+            lines.add("data " + (int) c + " * 1");
+        }
+        lines.add("data 0 * 1");
+    }
+
+    private void emitStringVarsInit(Map<String, Object> values) {
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (entry.getValue() instanceof String content) {
+                lines.add("li x7, " + getLiteralLabelFor(content));
+                lines.add("li x6, " + entry.getKey());
+                lines.add("sw x6, 0, x7");
+            }
+        }
+    }
+
     private void emitPrintIntSubroutine() {
         lines.add("print_int:");
         lines.add("beq x10, x0, print_int_zero");